@@ -1,5 +1,8 @@
 package com.example;
 
+import com.example.saml.SamlTenant;
+import com.example.saml.SamlTenantContext;
+
 import io.quarkus.qute.Template;
 import io.quarkus.qute.TemplateInstance;
 import jakarta.inject.Inject;
@@ -7,7 +10,6 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @Path("/")
 public class IndexResource {
@@ -15,12 +17,15 @@ public class IndexResource {
     @Inject
     Template index;
 
-    @ConfigProperty(name = "saml.idpUrl")
-    String idpUrl;
+    @Inject
+    SamlTenantContext tenantContext;
 
     @GET
     @Produces(MediaType.TEXT_HTML)
     public String get() {
-        return index.data("samlIdpUrl", idpUrl).render();
+        SamlTenant tenant = tenantContext.getTenant();
+        return index.data("samlIdpUrl", tenant.getIdpUrl())
+                .data("basePath", tenant.getBasePath())
+                .render();
     }
 }
\ No newline at end of file
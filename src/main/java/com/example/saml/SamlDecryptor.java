@@ -0,0 +1,282 @@
+package com.example.saml;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Decrypts SAML {@code EncryptedAssertion} elements (XML Encryption with RSA-OAEP key transport and
+ * AES-CBC or AES-GCM content encryption).
+ *
+ * Cipher instances are expensive to look up, so one of each is kept per thread and only re-initialised
+ * with the per-message key.
+ */
+@ApplicationScoped
+public class SamlDecryptor {
+
+    private static final String XENC = "http://www.w3.org/2001/04/xmlenc#";
+    private static final String XENC11 = "http://www.w3.org/2009/xmlenc11#";
+
+    private static final ThreadLocal<Cipher> RSA_OAEP = ThreadLocal.withInitial(() -> cipher("RSA/ECB/OAEPPadding"));
+    private static final ThreadLocal<Cipher> AES_CBC = ThreadLocal.withInitial(() -> cipher("AES/CBC/NoPadding"));
+    private static final ThreadLocal<Cipher> AES_GCM = ThreadLocal.withInitial(() -> cipher("AES/GCM/NoPadding"));
+
+    private static final int CBC_IV_LENGTH = 16;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    /**
+     * Decrypt the assertion the reader is positioned on.
+     *
+     * @param reader A reader positioned on the {@code EncryptedAssertion} start element. On return it is
+     *               positioned on the matching end element.
+     * @param privateKey The SP private key the content key was encrypted for.
+     * @return The plaintext {@code Assertion} XML, ready to be handed to a parser.
+     * @throws XMLStreamException If the encrypted element cannot be read.
+     * @throws GeneralSecurityException If the algorithms are unsupported or decryption fails.
+     */
+    public InputStream decrypt(XMLStreamReader reader, PrivateKey privateKey) throws XMLStreamException, GeneralSecurityException {
+        EncryptedData encryptedData = readEncryptedData(reader);
+        if (encryptedData.cipherValue == null) {
+            throw new GeneralSecurityException("EncryptedData has no CipherValue");
+        }
+        if (encryptedData.keys.isEmpty()) {
+            throw new GeneralSecurityException("EncryptedAssertion has no EncryptedKey");
+        }
+
+        int keyLength = contentKeyLength(encryptedData.algorithm);
+
+        // An assertion may carry one EncryptedKey per recipient; use the first one our key opens.
+        // Keys for other recipients fail in different ways (bad padding, wrong block size for another
+        // modulus, unsupported algorithm), so any failure moves on to the next key.
+        GeneralSecurityException lastFailure = null;
+        for (EncryptedKey encryptedKey : encryptedData.keys) {
+            SecretKey contentKey;
+            try {
+                contentKey = unwrapKey(encryptedKey, privateKey);
+                if (contentKey.getEncoded().length != keyLength) {
+                    throw new InvalidKeyException("Content key length does not match " + encryptedData.algorithm);
+                }
+            } catch (GeneralSecurityException e) {
+                lastFailure = e;
+                continue;
+            }
+            return decryptContent(encryptedData.algorithm, encryptedData.cipherValue, contentKey);
+        }
+        throw new GeneralSecurityException("No EncryptedKey could be decrypted with the SP private key", lastFailure);
+    }
+
+    private static int contentKeyLength(String algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            throw new NoSuchAlgorithmException("EncryptedData has no EncryptionMethod");
+        }
+        switch (algorithm) {
+            case XENC + "aes128-cbc":
+            case XENC11 + "aes128-gcm":
+                return 16;
+            case XENC + "aes192-cbc":
+            case XENC11 + "aes192-gcm":
+                return 24;
+            case XENC + "aes256-cbc":
+            case XENC11 + "aes256-gcm":
+                return 32;
+            default:
+                throw new NoSuchAlgorithmException("Unsupported content encryption algorithm: " + algorithm);
+        }
+    }
+
+    private SecretKey unwrapKey(EncryptedKey encryptedKey, PrivateKey privateKey) throws GeneralSecurityException {
+        String digest;
+        String mgfDigest;
+        if ((XENC + "rsa-oaep-mgf1p").equals(encryptedKey.algorithm)) {
+            digest = digestName(encryptedKey.digestAlgorithm);
+            mgfDigest = "SHA-1";
+        } else if ((XENC11 + "rsa-oaep").equals(encryptedKey.algorithm)) {
+            digest = digestName(encryptedKey.digestAlgorithm);
+            mgfDigest = mgfDigestName(encryptedKey.mgfAlgorithm);
+        } else {
+            throw new NoSuchAlgorithmException("Unsupported key transport algorithm: " + encryptedKey.algorithm);
+        }
+        if (encryptedKey.cipherValue == null) {
+            throw new GeneralSecurityException("EncryptedKey has no CipherValue");
+        }
+
+        OAEPParameterSpec oaep = new OAEPParameterSpec(digest, "MGF1", new MGF1ParameterSpec(mgfDigest), PSource.PSpecified.DEFAULT);
+        Cipher cipher = RSA_OAEP.get();
+        cipher.init(Cipher.DECRYPT_MODE, privateKey, oaep);
+        return new SecretKeySpec(cipher.doFinal(encryptedKey.cipherValue), "AES");
+    }
+
+    private InputStream decryptContent(String algorithm, byte[] cipherValue, SecretKey key) throws GeneralSecurityException {
+        switch (algorithm) {
+            case XENC + "aes128-cbc":
+            case XENC + "aes192-cbc":
+            case XENC + "aes256-cbc": {
+                if (cipherValue.length < 2 * CBC_IV_LENGTH) {
+                    throw new GeneralSecurityException("CipherValue too short");
+                }
+                Cipher cipher = AES_CBC.get();
+                cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(cipherValue, 0, CBC_IV_LENGTH));
+                byte[] plaintext = cipher.doFinal(cipherValue, CBC_IV_LENGTH, cipherValue.length - CBC_IV_LENGTH);
+                // XML Encryption uses ISO 10126 padding: only the last byte (the pad length) is defined
+                int padding = plaintext[plaintext.length - 1] & 0xff;
+                if (padding < 1 || padding > CBC_IV_LENGTH) {
+                    throw new BadPaddingException("Invalid padding");
+                }
+                return new ByteArrayInputStream(plaintext, 0, plaintext.length - padding);
+            }
+            case XENC11 + "aes128-gcm":
+            case XENC11 + "aes192-gcm":
+            case XENC11 + "aes256-gcm": {
+                if (cipherValue.length < GCM_IV_LENGTH + GCM_TAG_BITS / 8) {
+                    throw new GeneralSecurityException("CipherValue too short");
+                }
+                Cipher cipher = AES_GCM.get();
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, cipherValue, 0, GCM_IV_LENGTH));
+                byte[] plaintext = cipher.doFinal(cipherValue, GCM_IV_LENGTH, cipherValue.length - GCM_IV_LENGTH);
+                return new ByteArrayInputStream(plaintext);
+            }
+            default:
+                throw new NoSuchAlgorithmException("Unsupported content encryption algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * Collect the algorithms and cipher values below an {@code EncryptedAssertion}. The
+     * {@code EncryptedKey} may sit inside the {@code EncryptedData}'s {@code KeyInfo} or next to it.
+     */
+    private EncryptedData readEncryptedData(XMLStreamReader reader) throws XMLStreamException {
+        EncryptedData data = new EncryptedData();
+        EncryptedKey currentKey = null;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (currentKey != null && "EncryptedKey".equals(reader.getLocalName())) {
+                    currentKey = null;
+                }
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            depth++;
+            switch (reader.getLocalName()) {
+                case "EncryptedKey":
+                    currentKey = new EncryptedKey();
+                    data.keys.add(currentKey);
+                    break;
+                case "EncryptionMethod":
+                    if (currentKey != null) {
+                        currentKey.algorithm = reader.getAttributeValue(null, "Algorithm");
+                    } else {
+                        data.algorithm = reader.getAttributeValue(null, "Algorithm");
+                    }
+                    break;
+                case "DigestMethod":
+                    if (currentKey != null) {
+                        currentKey.digestAlgorithm = reader.getAttributeValue(null, "Algorithm");
+                    }
+                    break;
+                case "MGF":
+                    if (currentKey != null) {
+                        currentKey.mgfAlgorithm = reader.getAttributeValue(null, "Algorithm");
+                    }
+                    break;
+                case "CipherValue":
+                    byte[] value = Base64.getMimeDecoder().decode(reader.getElementText());
+                    depth--; // getElementText consumed the end element
+                    if (currentKey != null) {
+                        currentKey.cipherValue = value;
+                    } else {
+                        data.cipherValue = value;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return data;
+    }
+
+    private static String digestName(String algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            return "SHA-1";
+        }
+        switch (algorithm) {
+            case "http://www.w3.org/2000/09/xmldsig#sha1":
+                return "SHA-1";
+            case "http://www.w3.org/2001/04/xmlenc#sha256":
+                return "SHA-256";
+            case "http://www.w3.org/2001/04/xmldsig-more#sha384":
+                return "SHA-384";
+            case "http://www.w3.org/2001/04/xmlenc#sha512":
+                return "SHA-512";
+            default:
+                throw new NoSuchAlgorithmException("Unsupported OAEP digest: " + algorithm);
+        }
+    }
+
+    private static String mgfDigestName(String algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            return "SHA-1";
+        }
+        switch (algorithm) {
+            case XENC11 + "mgf1sha1":
+                return "SHA-1";
+            case XENC11 + "mgf1sha224":
+                return "SHA-224";
+            case XENC11 + "mgf1sha256":
+                return "SHA-256";
+            case XENC11 + "mgf1sha384":
+                return "SHA-384";
+            case XENC11 + "mgf1sha512":
+                return "SHA-512";
+            default:
+                throw new NoSuchAlgorithmException("Unsupported OAEP mask generation function: " + algorithm);
+        }
+    }
+
+    private static Cipher cipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher not available: " + transformation, e);
+        }
+    }
+
+    private static final class EncryptedData {
+        private String algorithm;
+        private byte[] cipherValue;
+        private final List<EncryptedKey> keys = new ArrayList<>();
+    }
+
+    private static final class EncryptedKey {
+        private String algorithm;
+        private String digestAlgorithm;
+        private String mgfAlgorithm;
+        private byte[] cipherValue;
+    }
+}
@@ -5,7 +5,6 @@ import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import jakarta.ws.rs.Consumes;
@@ -21,17 +20,13 @@ public class SamlResource {
 
     private static final Logger LOG = Logger.getLogger(SamlResource.class);
 
-    // Inject values from application.properties
-    @ConfigProperty(name = "saml.idpUrl")
-    String idpUrl;
-
-    @ConfigProperty(name = "saml.spEntityId")
-    String spEntityId;
-
     private final SamlService samlService;
 
-    public SamlResource(SamlService samlService) {
+    private final SamlTenantContext tenantContext;
+
+    public SamlResource(SamlService samlService, SamlTenantContext tenantContext) {
         this.samlService = samlService;
+        this.tenantContext = tenantContext;
     }
 
     @POST
@@ -45,19 +40,20 @@ public class SamlResource {
                     .build();
         }
 
+        SamlTenant tenant = tenantContext.getTenant();
         try {
             // Decode Base64
             byte[] decodedBytes = Base64.getDecoder().decode(samlResponse);
             String decodedSaml = new String(decodedBytes, StandardCharsets.UTF_8);
 
-            // Process the SAML response and extract key fields
-            SamlResponseData responseData = samlService.extractSamlData(decodedSaml);
+            // Process the SAML response (decrypting the assertion if needed) and extract key fields
+            SamlResponseData responseData = samlService.extractSamlData(tenant, decodedBytes);
 
-            // Check for the Department attribute
+            // Check for the tenant's portal attribute (Department = Mule Mongery by default)
             List<SamlAttribute> departmentAttributes = responseData.getAttributes().stream()
-                .filter(attr -> "Department".equals(attr.getName()) && "Mule Mongery".equals(attr.getValue()))
+                .filter(attr -> tenant.getPortalAttribute().equals(attr.getName()) && tenant.getPortalValue().equals(attr.getValue()))
                 .collect(Collectors.toList());
-            LOG.info("Department attributes: " + departmentAttributes);
+            LOG.info("Portal attributes for tenant " + tenant.getId() + ": " + departmentAttributes);
             boolean isMuleMongery = departmentAttributes.size() > 0;
 
             // Build HTML output
@@ -97,16 +93,17 @@ public class SamlResource {
     @Path("/initiateSso")
     @Consumes("application/x-www-form-urlencoded")
     public Response initiateSso() {
+        SamlTenant tenant = tenantContext.getTenant();
         try {
-            // Generate the SAML request (this function should create the SAML AuthnRequest XML)
-            String samlRequest = samlService.createSamlRequest(spEntityId);
+            // Generate the SAML request from the tenant's cached AuthnRequest template
+            String samlRequest = samlService.createSamlRequest(tenant);
 
             // Base64 encode the SAML request
             String encodedSamlRequest = samlService.base64Encode(samlRequest);
 
             // Generate the POST form with the SAML request
             // Now, the encoded SAML request is properly inserted into the form
-            String htmlForm = samlService.createHtmlForm(idpUrl, encodedSamlRequest);
+            String htmlForm = samlService.createHtmlForm(tenant.getIdpUrl(), encodedSamlRequest);
 
             // Return the form as an HTML response
             return Response.ok(htmlForm).build();
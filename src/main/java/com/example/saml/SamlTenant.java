@@ -0,0 +1,142 @@
+package com.example.saml;
+
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * Immutable per-tenant SP configuration together with the artifacts derived from it
+ * (parsed IdP and SP keys, metadata bytes, AuthnRequest template). Built once by
+ * {@link SamlTenantRegistry} and shared across requests.
+ */
+public final class SamlTenant {
+
+    static final String ID_PLACEHOLDER = "${ID}";
+    static final String ISSUE_INSTANT_PLACEHOLDER = "${ISSUE_INSTANT}";
+
+    private final String id;
+    private final String host;
+    private final String pathPrefix;
+    private final String spEntityId;
+    private final String acsUrl;
+    private final String sloUrl;
+    private final String cert;
+    private final String idpUrl;
+    private final PublicKey idpPublicKey;
+    private final PrivateKey spPrivateKey;
+    private final String portalAttribute;
+    private final String portalValue;
+    private final byte[] metadata;
+    private final String authnRequestTemplate;
+
+    SamlTenant(String id, String host, String pathPrefix, String spEntityId, String acsUrl, String sloUrl,
+            String cert, String idpUrl, PublicKey idpPublicKey, PrivateKey spPrivateKey, String portalAttribute, String portalValue,
+            String metadata, String authnRequestTemplate) {
+        this.id = id;
+        this.host = host;
+        this.pathPrefix = pathPrefix;
+        this.spEntityId = spEntityId;
+        this.acsUrl = acsUrl;
+        this.sloUrl = sloUrl;
+        this.cert = cert;
+        this.idpUrl = idpUrl;
+        this.idpPublicKey = idpPublicKey;
+        this.spPrivateKey = spPrivateKey;
+        this.portalAttribute = portalAttribute;
+        this.portalValue = portalValue;
+        this.metadata = metadata.getBytes(StandardCharsets.UTF_8);
+        this.authnRequestTemplate = authnRequestTemplate;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The Host header this tenant is served on, or null if it is not routed by host.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return The first path segment this tenant is served under, or null if it is not routed by path.
+     */
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    /**
+     * @return The path to prepend to application links, e.g. "/app-a", or "" for host-routed tenants.
+     */
+    public String getBasePath() {
+        return pathPrefix == null ? "" : "/" + pathPrefix;
+    }
+
+    public String getSpEntityId() {
+        return spEntityId;
+    }
+
+    public String getAcsUrl() {
+        return acsUrl;
+    }
+
+    public String getSloUrl() {
+        return sloUrl;
+    }
+
+    public String getCert() {
+        return cert;
+    }
+
+    public String getIdpUrl() {
+        return idpUrl;
+    }
+
+    /**
+     * @return The IdP signing key, or null if the configured certificate could not be parsed.
+     */
+    public PublicKey getIdpPublicKey() {
+        return idpPublicKey;
+    }
+
+    /**
+     * @return The SP key used to decrypt EncryptedAssertions, or null if encryption is not configured.
+     */
+    public PrivateKey getSpPrivateKey() {
+        return spPrivateKey;
+    }
+
+    public String getPortalAttribute() {
+        return portalAttribute;
+    }
+
+    public String getPortalValue() {
+        return portalValue;
+    }
+
+    /**
+     * @return The pre-rendered SP metadata document. Callers must not modify the array.
+     */
+    public byte[] getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Render an AuthnRequest for this tenant from the cached template.
+     *
+     * @param requestId The request ID.
+     * @param issueInstant The formatted issue instant.
+     * @return The AuthnRequest XML.
+     */
+    public String renderAuthnRequest(String requestId, String issueInstant) {
+        return authnRequestTemplate
+                .replace(ID_PLACEHOLDER, requestId)
+                .replace(ISSUE_INSTANT_PLACEHOLDER, issueInstant);
+    }
+
+    @Override
+    public String toString() {
+        return "SamlTenant{id='" + id + "', spEntityId='" + spEntityId + "'}";
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.saml;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * The tenant resolved for the current request by {@link SamlTenantFilter}.
+ */
+@RequestScoped
+public class SamlTenantContext {
+
+    private SamlTenant tenant;
+
+    public SamlTenant getTenant() {
+        return tenant;
+    }
+
+    void setTenant(SamlTenant tenant) {
+        this.tenant = tenant;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.saml;
+
+import java.net.URI;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Resolves the SAML tenant for every request from the Host header or the first path segment.
+ * Path-routed requests have their prefix stripped so that "/app-a/saml/acs" matches {@link SamlResource}.
+ */
+@Provider
+@PreMatching
+public class SamlTenantFilter implements ContainerRequestFilter {
+
+    @Inject
+    SamlTenantRegistry registry;
+
+    @Inject
+    SamlTenantContext tenantContext;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        URI requestUri = requestContext.getUriInfo().getRequestUri();
+        String path = requestUri.getRawPath();
+        String firstSegment = firstSegment(path);
+
+        SamlTenant tenant = registry.resolve(requestContext.getHeaderString(HttpHeaders.HOST), firstSegment);
+        tenantContext.setTenant(tenant);
+
+        if (firstSegment != null && firstSegment.equals(tenant.getPathPrefix())) {
+            String remaining = path.substring(firstSegment.length() + 1);
+            requestContext.setRequestUri(UriBuilder.fromUri(requestUri)
+                    .replacePath(remaining.isEmpty() ? "/" : remaining)
+                    .build());
+        }
+    }
+
+    private static String firstSegment(String path) {
+        if (path == null || path.length() < 2 || path.charAt(0) != '/') {
+            return null;
+        }
+        int end = path.indexOf('/', 1);
+        return end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.saml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Holds the SP tenants served by this instance.
+ *
+ * The top-level {@code saml.*} properties describe the default tenant. Additional tenants are
+ * listed in {@code saml.tenants} and configured under {@code saml.tenant.<id>.*}; any key a tenant
+ * leaves out falls back to the top-level value, except that {@code cert} and {@code sp.privateKey}
+ * only fall back as a pair. Tenants are routed by {@code host} and/or
+ * {@code pathPrefix}; requests matching neither go to the default tenant.
+ *
+ * If {@code saml.tenants.file} points to a properties file, its entries take precedence over the
+ * application configuration and the file is polled for changes; a changed file is loaded into a new
+ * routing table that replaces the old one in a single step. A file that fails to load is logged and
+ * the previous table stays in place.
+ */
+@Startup
+@ApplicationScoped
+public class SamlTenantRegistry {
+
+    private static final Logger LOG = Logger.getLogger(SamlTenantRegistry.class);
+
+    public static final String DEFAULT_TENANT_ID = "default";
+
+    // Placeholder used in application.properties for unset environment variables
+    private static final String NOT_SET = "NOT_SET";
+
+    // First path segments owned by resources in this application; a tenant prefix must not shadow them
+    private static final Set<String> RESERVED_PATH_PREFIXES = Set.of("saml", "q");
+
+    private final AtomicReference<RoutingTable> routingTable = new AtomicReference<>();
+
+    @Inject
+    SamlService samlService;
+
+    @ConfigProperty(name = "saml.tenants.file")
+    Optional<String> tenantsFile;
+
+    @ConfigProperty(name = "saml.tenants.reloadSeconds", defaultValue = "10")
+    long reloadSeconds;
+
+    private ScheduledExecutorService watcher;
+
+    private FileTime tenantsFileModified;
+
+    @PostConstruct
+    void init() {
+        reload();
+        if (tenantsFile.isPresent()) {
+            watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "saml-tenants-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    /**
+     * Re-read the tenants file (if configured) and the application configuration, rebuild every tenant
+     * and swap the routing table in one step. Requests already in flight keep the tenant they resolved.
+     */
+    synchronized void reload() {
+        Config config = ConfigProvider.getConfig();
+        Properties fileProperties = new Properties();
+        if (tenantsFile.isPresent()) {
+            Path file = Path.of(tenantsFile.get());
+            try (Reader reader = Files.newBufferedReader(file)) {
+                tenantsFileModified = Files.getLastModifiedTime(file);
+                fileProperties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read SAML tenants file " + file, e);
+            }
+        }
+        load(key -> Optional.ofNullable(fileProperties.getProperty(key))
+                .or(() -> config.getOptionalValue(key, String.class)));
+    }
+
+    private void reloadIfModified() {
+        try {
+            if (!Files.getLastModifiedTime(Path.of(tenantsFile.get())).equals(tenantsFileModified)) {
+                reload();
+            }
+        } catch (Exception e) {
+            LOG.error("Could not reload SAML tenants; keeping the current tenants", e);
+        }
+    }
+
+    /**
+     * Build a routing table from the given properties and make it current.
+     *
+     * @param properties Looks up a configuration value by its full key.
+     */
+    void load(Function<String, Optional<String>> properties) {
+        RoutingTable table = buildRoutingTable(properties);
+        routingTable.set(table);
+        LOG.info("Loaded SAML tenants: " + table.tenants.keySet());
+    }
+
+    /**
+     * Resolve the tenant for a request.
+     *
+     * @param host The Host header, possibly including a port. May be null.
+     * @param firstPathSegment The first segment of the request path. May be null.
+     * @return The matching tenant, or the default tenant.
+     */
+    public SamlTenant resolve(String host, String firstPathSegment) {
+        return routingTable.get().resolve(host, firstPathSegment);
+    }
+
+    public SamlTenant getDefaultTenant() {
+        return routingTable.get().defaultTenant;
+    }
+
+    private RoutingTable buildRoutingTable(Function<String, Optional<String>> properties) {
+        Map<String, SamlTenant> tenants = new HashMap<>();
+        Map<String, SamlTenant> byHost = new HashMap<>();
+        Map<String, SamlTenant> byPathPrefix = new HashMap<>();
+
+        SamlTenant defaultTenant = buildTenant(properties, DEFAULT_TENANT_ID, "saml.");
+        tenants.put(DEFAULT_TENANT_ID, defaultTenant);
+
+        List<String> tenantIds = properties.apply("saml.tenants").filter(ids -> !ids.isBlank())
+                .map(ids -> List.of(ids.split(","))).orElse(List.of());
+        for (String tenantId : tenantIds) {
+            String id = tenantId.trim();
+            if (id.isEmpty() || tenants.containsKey(id)) {
+                throw new IllegalStateException("Invalid or duplicate SAML tenant id: '" + tenantId + "'");
+            }
+            SamlTenant tenant = buildTenant(properties, id, "saml.tenant." + id + ".");
+            if (tenant.getHost() == null && tenant.getPathPrefix() == null) {
+                throw new IllegalStateException("SAML tenant '" + id + "' needs a host or a pathPrefix");
+            }
+            if (tenant.getPathPrefix() != null && RESERVED_PATH_PREFIXES.contains(tenant.getPathPrefix())) {
+                throw new IllegalStateException("SAML tenant '" + id + "' uses reserved path prefix: " + tenant.getPathPrefix());
+            }
+            tenants.put(id, tenant);
+            if (tenant.getHost() != null && byHost.putIfAbsent(tenant.getHost(), tenant) != null) {
+                throw new IllegalStateException("SAML host routed to more than one tenant: " + tenant.getHost());
+            }
+            if (tenant.getPathPrefix() != null && byPathPrefix.putIfAbsent(tenant.getPathPrefix(), tenant) != null) {
+                throw new IllegalStateException("SAML path prefix routed to more than one tenant: " + tenant.getPathPrefix());
+            }
+        }
+
+        return new RoutingTable(tenants, byHost, byPathPrefix, defaultTenant);
+    }
+
+    private SamlTenant buildTenant(Function<String, Optional<String>> properties, String id, String prefix) {
+        String host = properties.apply(prefix + "host")
+                .map(h -> h.trim().toLowerCase(Locale.ROOT)).filter(h -> !h.isEmpty()).orElse(null);
+        String pathPrefix = properties.apply(prefix + "pathPrefix")
+                .map(p -> p.replace("/", "")).filter(p -> !p.isEmpty()).orElse(null);
+
+        String spEntityId = value(properties, prefix, "spEntityId");
+        String acsUrl = value(properties, prefix, "acs.url");
+        String sloUrl = value(properties, prefix, "slo.url");
+        String idpUrl = value(properties, prefix, "idpUrl");
+        String idpPublicKeyPem = value(properties, prefix, "idp.publicKey");
+        // The SP certificate and private key belong together: a tenant that sets either gets neither from the top level
+        String keyPairPrefix = properties.apply(prefix + "cert").isPresent()
+                || properties.apply(prefix + "sp.privateKey").isPresent() ? prefix : "saml.";
+        String cert = properties.apply(keyPairPrefix + "cert").orElse(NOT_SET);
+        String spPrivateKeyPem = properties.apply(keyPairPrefix + "sp.privateKey").orElse(NOT_SET);
+        String portalAttribute = value(properties, prefix, "portal.attribute");
+        String portalValue = value(properties, prefix, "portal.value");
+
+        PublicKey idpPublicKey = null;
+        try {
+            idpPublicKey = samlService.loadPublicKey(idpPublicKeyPem);
+        } catch (Exception e) {
+            LOG.warn("Could not parse IdP public key for SAML tenant '" + id + "'; signature validation is unavailable");
+        }
+
+        PrivateKey spPrivateKey = null;
+        if (!NOT_SET.equals(spPrivateKeyPem)) {
+            spPrivateKey = loadSpPrivateKey(id, spPrivateKeyPem, cert);
+        }
+        // Only advertise the certificate for encryption once the private key is known to match it
+        boolean encryptionEnabled = spPrivateKey != null;
+
+        return new SamlTenant(id, host, pathPrefix, spEntityId, acsUrl, sloUrl, cert, idpUrl, idpPublicKey, spPrivateKey,
+                portalAttribute, portalValue,
+                samlService.createMetadata(spEntityId, acsUrl, sloUrl, cert, encryptionEnabled),
+                samlService.createSamlRequestTemplate(spEntityId, idpUrl, acsUrl));
+    }
+
+    /**
+     * Load the SP private key and check that it belongs to the SP certificate, so that the certificate
+     * published for encryption is one this tenant can actually decrypt for.
+     */
+    private PrivateKey loadSpPrivateKey(String id, String privateKeyPem, String cert) {
+        PrivateKey privateKey;
+        try {
+            privateKey = samlService.loadPrivateKey(privateKeyPem);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not parse SP private key for SAML tenant '" + id + "'", e);
+        }
+        PublicKey certKey;
+        try {
+            certKey = samlService.loadPublicKey(cert);
+        } catch (Exception e) {
+            throw new IllegalStateException("SAML tenant '" + id + "' has an SP private key but no valid SP certificate", e);
+        }
+        if (!(privateKey instanceof RSAKey rsaPrivateKey) || !(certKey instanceof RSAKey rsaCertKey)
+                || !rsaPrivateKey.getModulus().equals(rsaCertKey.getModulus())) {
+            throw new IllegalStateException("SP private key of SAML tenant '" + id + "' does not match its SP certificate");
+        }
+        return privateKey;
+    }
+
+    // Tenant keys fall back to the top-level (default tenant) key
+    private static String value(Function<String, Optional<String>> properties, String prefix, String key) {
+        return properties.apply(prefix + key)
+                .or(() -> properties.apply("saml." + key))
+                .orElseThrow(() -> new IllegalStateException("Missing SAML configuration property saml." + key));
+    }
+
+    /**
+     * Immutable lookup tables; replaced as a whole on reload.
+     */
+    private static final class RoutingTable {
+        private final Map<String, SamlTenant> tenants;
+        private final Map<String, SamlTenant> byHost;
+        private final Map<String, SamlTenant> byPathPrefix;
+        private final SamlTenant defaultTenant;
+
+        RoutingTable(Map<String, SamlTenant> tenants, Map<String, SamlTenant> byHost,
+                Map<String, SamlTenant> byPathPrefix, SamlTenant defaultTenant) {
+            this.tenants = Map.copyOf(tenants);
+            this.byHost = Map.copyOf(byHost);
+            this.byPathPrefix = Map.copyOf(byPathPrefix);
+            this.defaultTenant = defaultTenant;
+        }
+
+        SamlTenant resolve(String host, String firstPathSegment) {
+            if (firstPathSegment != null) {
+                SamlTenant tenant = byPathPrefix.get(firstPathSegment);
+                if (tenant != null) {
+                    return tenant;
+                }
+            }
+            if (host != null && !byHost.isEmpty()) {
+                String normalized = host.toLowerCase(Locale.ROOT);
+                SamlTenant tenant = byHost.get(normalized);
+                if (tenant == null) {
+                    int colon = normalized.lastIndexOf(':');
+                    if (colon > 0 && normalized.indexOf(']') < colon) {
+                        tenant = byHost.get(normalized.substring(0, colon));
+                    }
+                }
+                if (tenant != null) {
+                    return tenant;
+                }
+            }
+            return defaultTenant;
+        }
+    }
+}
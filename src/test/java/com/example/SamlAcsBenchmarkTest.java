@@ -0,0 +1,71 @@
+package com.example;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+
+import static com.example.saml.SamlTestResponses.AES256_CBC;
+import static com.example.saml.SamlTestResponses.ASSERTION;
+import static com.example.saml.SamlTestResponses.base64;
+import static com.example.saml.SamlTestResponses.encrypted;
+import static com.example.saml.SamlTestResponses.response;
+import static io.restassured.RestAssured.given;
+
+/**
+ * End-to-end /saml/acs latency with plaintext and encrypted assertions.
+ *
+ * Opt-in: mvn test -Dtest=SamlAcsBenchmarkTest -Dbenchmark=true
+ */
+@QuarkusTest
+@TestProfile(SamlAcsTest.EncryptionProfile.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SamlAcsBenchmarkTest {
+
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 5000;
+
+    @Test
+    void benchmarkAcsLatency() throws Exception {
+        String plaintext = base64(response(ASSERTION));
+        String gcm = base64(response(encrypted().recipient(SamlAcsTest.EncryptionProfile.keys().publicKey()).build()));
+        String cbc = base64(response(encrypted().contentAlgorithm(AES256_CBC)
+                .recipient(SamlAcsTest.EncryptionProfile.keys().publicKey()).build()));
+
+        for (int i = 0; i < WARMUP; i++) {
+            post(plaintext);
+            post(gcm);
+            post(cbc);
+        }
+        report("plaintext", measure(plaintext));
+        report("aes256-gcm", measure(gcm));
+        report("aes256-cbc", measure(cbc));
+    }
+
+    private static long[] measure(String samlResponse) {
+        long[] nanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            post(samlResponse);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(String label, long[] sortedNanos) {
+        double mean = Arrays.stream(sortedNanos).average().orElse(0) / 1000;
+        System.out.printf("/saml/acs %-10s n=%d mean=%.0fus p50=%dus p99=%dus%n", label, sortedNanos.length, mean,
+                sortedNanos[sortedNanos.length / 2] / 1000, sortedNanos[sortedNanos.length * 99 / 100] / 1000);
+    }
+
+    private static void post(String samlResponse) {
+        given()
+          .formParam("SAMLResponse", samlResponse)
+          .when().post("/saml/acs")
+          .then()
+             .statusCode(200);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example;
+
+import com.example.saml.TestKeys;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.example.saml.SamlTestResponses.ASSERTION;
+import static com.example.saml.SamlTestResponses.base64;
+import static com.example.saml.SamlTestResponses.encrypted;
+import static com.example.saml.SamlTestResponses.response;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+
+@QuarkusTest
+@TestProfile(SamlAcsTest.EncryptionProfile.class)
+class SamlAcsTest {
+
+    @Test
+    void testPlaintextAssertion() {
+        given()
+          .formParam("SAMLResponse", base64(response(ASSERTION)))
+          .when().post("/saml/acs")
+          .then()
+             .statusCode(200)
+             .body(containsString("<li>Issuer: https://idp.example.com</li>"))
+             .body(containsString("<li>Subject: mule@example.com</li>"))
+             .body(containsString("<li>Session Index: _s1</li>"))
+             .body(containsString("<li>Authn Statement Time: 2025-01-01T00:00:00Z</li>"))
+             .body(containsString("Mule Monger Portal"));
+    }
+
+    @Test
+    void testEncryptedAssertion() throws Exception {
+        String encryptedAssertion = encrypted().recipient(EncryptionProfile.keys().publicKey()).build();
+        given()
+          .formParam("SAMLResponse", base64(response(encryptedAssertion)))
+          .when().post("/saml/acs")
+          .then()
+             .statusCode(200)
+             .body(containsString("<li>Subject: mule@example.com</li>"))
+             .body(containsString("<li>Session Index: _s1</li>"))
+             .body(containsString("Mule Monger Portal"));
+    }
+
+    @Test
+    void testMissingSamlResponse() {
+        given()
+          .formParam("SAMLResponse", "")
+          .when().post("/saml/acs")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    void testMetadataAdvertisesEncryptionKey() {
+        given()
+          .when().get("/saml/metadata")
+          .then()
+             .statusCode(200)
+             .body(containsString("<KeyDescriptor use=\"encryption\">"));
+    }
+
+    /**
+     * Configures a generated SP certificate and matching private key.
+     */
+    public static class EncryptionProfile implements QuarkusTestProfile {
+
+        static TestKeys keys() {
+            return TestKeys.get("sp", 2048);
+        }
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "saml.cert", keys().certBase64(),
+                "saml.sp.privateKey", keys().privateKeyPem());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+
+@QuarkusTest
+@TestProfile(SamlTenantRoutingTest.TenantsProfile.class)
+class SamlTenantRoutingTest {
+
+    @Test
+    void testDefaultTenantMetadata() {
+        given()
+          .when().get("/saml/metadata")
+          .then()
+             .statusCode(200)
+             .body(containsString("entityID=\"https://sp.example.com\""));
+    }
+
+    @Test
+    void testPathPrefixedMetadata() {
+        given()
+          .when().get("/app-a/saml/metadata")
+          .then()
+             .statusCode(200)
+             .body(containsString("entityID=\"https://example.com/app-a\""))
+             .body(containsString("Location=\"https://example.com/app-a/saml/acs\""));
+    }
+
+    @Test
+    void testHostRoutedMetadata() {
+        given()
+          .header("Host", "app-b.example.com:8081")
+          .when().get("/saml/metadata")
+          .then()
+             .statusCode(200)
+             .body(containsString("entityID=\"https://example.com/app-b\""));
+    }
+
+    @Test
+    void testPathPrefixWinsOverHost() {
+        given()
+          .header("Host", "app-b.example.com")
+          .when().get("/app-a/saml/metadata")
+          .then()
+             .statusCode(200)
+             .body(containsString("entityID=\"https://example.com/app-a\""));
+    }
+
+    @Test
+    void testPathPrefixRootServesIndex() {
+        given()
+          .when().get("/app-a")
+          .then()
+             .statusCode(200)
+             .body(containsString("href=\"/app-a/saml/metadata\""))
+             .body(containsString("fetch(\"/app-a/saml/initiateSso\""))
+             .body(containsString("action=\"https://idp-a.example.com/sso\""));
+    }
+
+    @Test
+    void testInitiateSsoUsesTenant() {
+        given()
+          .when().post("/app-a/saml/initiateSso")
+          .then()
+             .statusCode(200)
+             .body(containsString("action='https://idp-a.example.com/sso'"));
+
+        given()
+          .header("Host", "APP-B.example.com")
+          .when().post("/saml/initiateSso")
+          .then()
+             .statusCode(200)
+             .body(containsString("action='https://idp.example.com/sso'"))
+             .body(not(containsString("idp-a")));
+    }
+
+    public static class TenantsProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "saml.spEntityId", "https://sp.example.com",
+                "saml.idpUrl", "https://idp.example.com/sso",
+                "saml.tenants", "app-a,app-b",
+                "saml.tenant.app-a.pathPrefix", "app-a",
+                "saml.tenant.app-a.spEntityId", "https://example.com/app-a",
+                "saml.tenant.app-a.acs.url", "https://example.com/app-a/saml/acs",
+                "saml.tenant.app-a.idpUrl", "https://idp-a.example.com/sso",
+                "saml.tenant.app-b.host", "app-b.example.com",
+                "saml.tenant.app-b.spEntityId", "https://example.com/app-b");
+        }
+    }
+}
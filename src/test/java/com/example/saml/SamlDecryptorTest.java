@@ -0,0 +1,135 @@
+package com.example.saml;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.util.Base64;
+
+import static com.example.saml.SamlTestResponses.AES128_CBC;
+import static com.example.saml.SamlTestResponses.AES128_GCM;
+import static com.example.saml.SamlTestResponses.AES192_CBC;
+import static com.example.saml.SamlTestResponses.AES256_CBC;
+import static com.example.saml.SamlTestResponses.AES256_GCM;
+import static com.example.saml.SamlTestResponses.ASSERTION;
+import static com.example.saml.SamlTestResponses.RSA_1_5;
+import static com.example.saml.SamlTestResponses.RSA_OAEP_SHA256;
+import static com.example.saml.SamlTestResponses.encrypted;
+import static com.example.saml.SamlTestResponses.response;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SamlDecryptorTest {
+
+    private static TestKeys sp;
+    private static TestKeys other;
+    private static TestKeys larger;
+
+    private final SamlDecryptor decryptor = new SamlDecryptor();
+
+    @BeforeAll
+    static void generateKeys() {
+        sp = TestKeys.get("sp", 2048);
+        other = TestKeys.get("other", 2048);
+        larger = TestKeys.get("larger", 3072);
+    }
+
+    @Test
+    void testAesGcmWithRsaOaepMgf1p() throws Exception {
+        assertEquals(ASSERTION, decrypt(encrypted().contentAlgorithm(AES256_GCM).recipient(sp.publicKey()).build()));
+        assertEquals(ASSERTION, decrypt(encrypted().contentAlgorithm(AES128_GCM).recipient(sp.publicKey()).build()));
+    }
+
+    @Test
+    void testAesCbcStripsIso10126Padding() throws Exception {
+        for (String algorithm : new String[] { AES128_CBC, AES192_CBC, AES256_CBC }) {
+            assertEquals(ASSERTION, decrypt(encrypted().contentAlgorithm(algorithm).recipient(sp.publicKey()).build()), algorithm);
+        }
+    }
+
+    @Test
+    void testRsaOaepWithDigestAndMgf() throws Exception {
+        assertEquals(ASSERTION, decrypt(encrypted().keyTransport(RSA_OAEP_SHA256).recipient(sp.publicKey()).build()));
+        assertEquals(ASSERTION, decrypt(encrypted().keyTransport(RSA_OAEP_SHA256).contentAlgorithm(AES256_CBC)
+                .recipient(sp.publicKey()).build()));
+    }
+
+    @Test
+    void testEncryptedKeyNextToEncryptedData() throws Exception {
+        assertEquals(ASSERTION, decrypt(encrypted().siblingKey().recipient(sp.publicKey()).build()));
+    }
+
+    @Test
+    void testSkipsKeysForOtherRecipients() throws Exception {
+        // Same modulus size: the other recipient's key fails OAEP decoding
+        assertEquals(ASSERTION, decrypt(encrypted().recipient(other.publicKey()).recipient(sp.publicKey()).build()));
+        // Larger modulus: the other recipient's key is too long for our key
+        assertEquals(ASSERTION, decrypt(encrypted().recipient(larger.publicKey()).recipient(sp.publicKey()).build()));
+        assertEquals(ASSERTION, decrypt(encrypted().siblingKey().recipient(larger.publicKey()).recipient(other.publicKey())
+                .recipient(sp.publicKey()).build()));
+    }
+
+    @Test
+    void testFailsWhenNoKeyIsForUs() throws Exception {
+        String assertion = encrypted().recipient(other.publicKey()).recipient(larger.publicKey()).build();
+        assertThrows(GeneralSecurityException.class, () -> decrypt(assertion));
+    }
+
+    @Test
+    void testRejectsContentKeyLengthMismatch() throws Exception {
+        String assertion = encrypted().contentAlgorithm(AES256_GCM).contentKeyLength(16).recipient(sp.publicKey()).build();
+        GeneralSecurityException e = assertThrows(GeneralSecurityException.class, () -> decrypt(assertion));
+        assertInstanceOf(InvalidKeyException.class, e.getCause());
+    }
+
+    @Test
+    void testRejectsUnsupportedAlgorithms() throws Exception {
+        String rsa15 = encrypted().keyTransport(RSA_1_5).recipient(sp.publicKey()).build();
+        GeneralSecurityException e = assertThrows(GeneralSecurityException.class, () -> decrypt(rsa15));
+        assertInstanceOf(NoSuchAlgorithmException.class, e.getCause());
+
+        String tripleDes = encrypted().recipient(sp.publicKey()).build()
+                .replace(AES256_GCM, "http://www.w3.org/2001/04/xmlenc#tripledes-cbc");
+        assertThrows(NoSuchAlgorithmException.class, () -> decrypt(tripleDes));
+    }
+
+    @Test
+    void testRejectsTamperedGcmCiphertext() throws Exception {
+        String assertion = encrypted().contentAlgorithm(AES256_GCM).recipient(sp.publicKey()).build();
+        // The content CipherValue is the last one in the element
+        int start = assertion.lastIndexOf("<xenc:CipherValue>") + "<xenc:CipherValue>".length();
+        int end = assertion.indexOf("</xenc:CipherValue>", start);
+        byte[] cipherValue = Base64.getMimeDecoder().decode(assertion.substring(start, end));
+        cipherValue[cipherValue.length - 1] ^= 1;
+        String tampered = assertion.substring(0, start) + Base64.getEncoder().encodeToString(cipherValue) + assertion.substring(end);
+        assertThrows(AEADBadTagException.class, () -> decrypt(tampered));
+    }
+
+    private String decrypt(String encryptedAssertion) throws Exception {
+        return decrypt(encryptedAssertion, sp.privateKey());
+    }
+
+    private String decrypt(String encryptedAssertion, PrivateKey privateKey) throws Exception {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(response(encryptedAssertion)));
+        while (reader.next() != XMLStreamConstants.START_ELEMENT || !"EncryptedAssertion".equals(reader.getLocalName())) {
+            // advance to the EncryptedAssertion
+        }
+        try (InputStream plaintext = decryptor.decrypt(reader, privateKey)) {
+            String result = new String(plaintext.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(XMLStreamConstants.END_ELEMENT, reader.getEventType());
+            assertEquals("EncryptedAssertion", reader.getLocalName());
+            return result;
+        }
+    }
+}
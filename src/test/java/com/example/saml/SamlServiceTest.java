@@ -0,0 +1,61 @@
+package com.example.saml;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.PrivateKey;
+
+import static com.example.saml.SamlTestResponses.ASSERTION;
+import static com.example.saml.SamlTestResponses.encrypted;
+import static com.example.saml.SamlTestResponses.response;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SamlServiceTest {
+
+    private final SamlService samlService = new SamlService();
+
+    SamlServiceTest() {
+        samlService.samlDecryptor = new SamlDecryptor();
+    }
+
+    @Test
+    void testExtractPlaintextAssertion() throws Exception {
+        assertExtracted(samlService.extractSamlData(tenant(null), response(ASSERTION)));
+    }
+
+    @Test
+    void testExtractEncryptedAssertion() throws Exception {
+        TestKeys sp = TestKeys.get("sp", 2048);
+        byte[] response = response(encrypted().recipient(sp.publicKey()).build());
+        assertExtracted(samlService.extractSamlData(tenant(sp.privateKey()), response));
+    }
+
+    @Test
+    void testEncryptedAssertionWithoutSpPrivateKey() throws Exception {
+        TestKeys sp = TestKeys.get("sp", 2048);
+        byte[] response = response(encrypted().recipient(sp.publicKey()).build());
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> samlService.extractSamlData(tenant(null), response));
+        assertTrue(e.getMessage().contains("no SP private key"), e.getMessage());
+    }
+
+    private static void assertExtracted(SamlResponseData data) {
+        // The Response issuer comes first and wins over the assertion issuer
+        assertEquals("https://idp.example.com", data.getIssuer());
+        assertEquals("mule@example.com", data.getSubject());
+        assertEquals("_s1", data.getSessionIndex());
+        assertEquals("2025-01-01T00:00:00Z", data.getAuthnTime());
+        assertEquals(2, data.getAttributes().size());
+        assertEquals("Department", data.getAttributes().get(0).getName());
+        assertEquals("Mule Mongery", data.getAttributes().get(0).getValue());
+        assertEquals("Email", data.getAttributes().get(1).getName());
+        assertEquals("mule@example.com", data.getAttributes().get(1).getValue());
+    }
+
+    private static SamlTenant tenant(PrivateKey spPrivateKey) {
+        return new SamlTenant("test", null, null, "https://sp.example.com", "https://sp.example.com/saml/acs",
+                "https://sp.example.com/saml/slo", "NOT_SET", "https://idp.example.com/sso", null, spPrivateKey,
+                "Department", "Mule Mongery", "<EntityDescriptor/>", "<AuthnRequest/>");
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.saml;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SamlTenantRegistryTest {
+
+    private SamlTenantRegistry registry;
+
+    private Map<String, String> properties;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SamlTenantRegistry();
+        registry.samlService = new SamlService();
+        registry.tenantsFile = Optional.empty();
+
+        properties = new HashMap<>();
+        properties.put("saml.spEntityId", "https://sp.example.com");
+        properties.put("saml.acs.url", "https://sp.example.com/saml/acs");
+        properties.put("saml.slo.url", "https://sp.example.com/saml/slo");
+        properties.put("saml.cert", "NOT_SET");
+        properties.put("saml.idpUrl", "https://idp.example.com/sso");
+        properties.put("saml.idp.publicKey", "NOT_SET");
+        properties.put("saml.sp.privateKey", "NOT_SET");
+        properties.put("saml.portal.attribute", "Department");
+        properties.put("saml.portal.value", "Mule Mongery");
+        properties.put("saml.tenants", "app-a,app-b,ipv6");
+        properties.put("saml.tenant.app-a.pathPrefix", "app-a");
+        properties.put("saml.tenant.app-a.host", "shared.example.com");
+        properties.put("saml.tenant.app-a.spEntityId", "https://example.com/app-a");
+        properties.put("saml.tenant.app-b.host", "App-B.Example.com");
+        properties.put("saml.tenant.app-b.spEntityId", "https://example.com/app-b");
+        properties.put("saml.tenant.ipv6.host", "[::1]");
+    }
+
+    private void load() {
+        registry.load(key -> Optional.ofNullable(properties.get(key)));
+    }
+
+    @Test
+    void testHostMatch() {
+        load();
+        assertEquals("app-b", registry.resolve("app-b.example.com", null).getId());
+        assertEquals("app-b", registry.resolve("app-b.example.com:8443", "saml").getId());
+    }
+
+    @Test
+    void testHostMatchIsCaseInsensitive() {
+        load();
+        assertEquals("app-b", registry.resolve("APP-B.EXAMPLE.COM", null).getId());
+        assertEquals("app-b", registry.resolve("App-B.Example.Com:80", null).getId());
+    }
+
+    @Test
+    void testIpv6HostMatch() {
+        load();
+        assertEquals("ipv6", registry.resolve("[::1]", null).getId());
+        assertEquals("ipv6", registry.resolve("[::1]:8080", null).getId());
+        assertEquals(SamlTenantRegistry.DEFAULT_TENANT_ID, registry.resolve("[::2]:8080", null).getId());
+    }
+
+    @Test
+    void testPathPrefixWinsOverHost() {
+        load();
+        assertEquals("app-a", registry.resolve("app-b.example.com", "app-a").getId());
+    }
+
+    @Test
+    void testFallbackToDefaultTenant() {
+        load();
+        SamlTenant tenant = registry.resolve("unknown.example.com", "saml");
+        assertEquals(SamlTenantRegistry.DEFAULT_TENANT_ID, tenant.getId());
+        assertEquals("https://sp.example.com", tenant.getSpEntityId());
+        assertEquals(SamlTenantRegistry.DEFAULT_TENANT_ID, registry.resolve(null, null).getId());
+    }
+
+    @Test
+    void testTenantInheritsTopLevelValues() {
+        load();
+        SamlTenant tenant = registry.resolve(null, "app-a");
+        assertEquals("https://example.com/app-a", tenant.getSpEntityId());
+        assertEquals("https://idp.example.com/sso", tenant.getIdpUrl());
+        assertEquals("/app-a", tenant.getBasePath());
+    }
+
+    @Test
+    void testDuplicateHostFailsToLoad() {
+        properties.put("saml.tenant.app-a.host", "app-b.example.com");
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::load);
+        assertTrue(e.getMessage().contains("app-b.example.com"), e.getMessage());
+    }
+
+    @Test
+    void testDuplicatePathPrefixFailsToLoad() {
+        properties.put("saml.tenant.app-b.pathPrefix", "/app-a/");
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::load);
+        assertTrue(e.getMessage().contains("app-a"), e.getMessage());
+    }
+
+    @Test
+    void testTenantWithoutRouteFailsToLoad() {
+        properties.remove("saml.tenant.app-b.host");
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::load);
+        assertTrue(e.getMessage().contains("app-b"), e.getMessage());
+    }
+
+    @Test
+    void testReservedPathPrefixFailsToLoad() {
+        properties.put("saml.tenant.app-a.pathPrefix", "saml");
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::load);
+        assertTrue(e.getMessage().contains("reserved"), e.getMessage());
+    }
+
+    @Test
+    void testFailedLoadKeepsCurrentTable() {
+        load();
+        properties.put("saml.tenant.app-a.pathPrefix", "saml");
+        assertThrows(IllegalStateException.class, this::load);
+        assertEquals("app-a", registry.resolve(null, "app-a").getId());
+    }
+
+    @Test
+    void testReloadSwapsInTenantsFromFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tenants.properties");
+        Files.writeString(file, "saml.tenants=app-c\nsaml.tenant.app-c.pathPrefix=app-c\n");
+        registry.tenantsFile = Optional.of(file.toString());
+
+        registry.reload();
+        assertEquals("app-c", registry.resolve(null, "app-c").getId());
+
+        Files.writeString(file, "saml.tenants=app-d\nsaml.tenant.app-d.pathPrefix=app-d\n");
+        registry.reload();
+        assertEquals("app-d", registry.resolve(null, "app-d").getId());
+        assertEquals(SamlTenantRegistry.DEFAULT_TENANT_ID, registry.resolve(null, "app-c").getId());
+    }
+
+    @Test
+    void testTenantInheritsCertAndKeyAsPair() {
+        TestKeys sp = TestKeys.get("sp", 2048);
+        properties.put("saml.cert", sp.certBase64());
+        properties.put("saml.sp.privateKey", sp.privateKeyPem());
+        load();
+
+        SamlTenant tenant = registry.resolve(null, "app-a");
+        assertNotNull(tenant.getSpPrivateKey());
+        assertTrue(new String(tenant.getMetadata(), StandardCharsets.UTF_8).contains("use=\"encryption\""));
+    }
+
+    @Test
+    void testTenantCertDoesNotPairWithDefaultKey() {
+        TestKeys sp = TestKeys.get("sp", 2048);
+        TestKeys other = TestKeys.get("other", 2048);
+        properties.put("saml.cert", sp.certBase64());
+        properties.put("saml.sp.privateKey", sp.privateKeyPem());
+        properties.put("saml.tenant.app-a.cert", other.certBase64());
+        load();
+
+        SamlTenant tenant = registry.resolve(null, "app-a");
+        assertEquals(other.certBase64(), tenant.getCert());
+        assertNull(tenant.getSpPrivateKey());
+        assertFalse(new String(tenant.getMetadata(), StandardCharsets.UTF_8).contains("use=\"encryption\""));
+        assertNotNull(registry.getDefaultTenant().getSpPrivateKey());
+    }
+
+    @Test
+    void testMismatchedKeyAndCertFailToLoad() {
+        properties.put("saml.tenant.app-a.cert", TestKeys.get("sp", 2048).certBase64());
+        properties.put("saml.tenant.app-a.sp.privateKey", TestKeys.get("other", 2048).privateKeyPem());
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::load);
+        assertTrue(e.getMessage().contains("does not match"), e.getMessage());
+    }
+
+    @Test
+    void testKeyWithoutCertFailsToLoad() {
+        properties.put("saml.tenant.app-a.sp.privateKey", TestKeys.get("sp", 2048).privateKeyPem());
+        IllegalStateException e = assertThrows(IllegalStateException.class, this::load);
+        assertTrue(e.getMessage().contains("no valid SP certificate"), e.getMessage());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.saml;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Builds SAML responses for tests, in the clear or with an XML Encryption EncryptedAssertion.
+ */
+public final class SamlTestResponses {
+
+    public static final String AES128_CBC = "http://www.w3.org/2001/04/xmlenc#aes128-cbc";
+    public static final String AES192_CBC = "http://www.w3.org/2001/04/xmlenc#aes192-cbc";
+    public static final String AES256_CBC = "http://www.w3.org/2001/04/xmlenc#aes256-cbc";
+    public static final String AES128_GCM = "http://www.w3.org/2009/xmlenc11#aes128-gcm";
+    public static final String AES256_GCM = "http://www.w3.org/2009/xmlenc11#aes256-gcm";
+
+    public static final String RSA_OAEP_MGF1P = "http://www.w3.org/2001/04/xmlenc#rsa-oaep-mgf1p";
+    public static final String RSA_OAEP_SHA256 = "http://www.w3.org/2009/xmlenc11#rsa-oaep";
+    public static final String RSA_1_5 = "http://www.w3.org/2001/04/xmlenc#rsa-1_5";
+
+    public static final String ASSERTION = """
+        <saml:Assertion xmlns:saml="urn:oasis:names:tc:SAML:2.0:assertion" ID="_a1" Version="2.0" IssueInstant="2025-01-01T00:00:00Z">
+            <saml:Issuer>https://idp.example.com/assertion</saml:Issuer>
+            <saml:Subject><saml:NameID>mule@example.com</saml:NameID></saml:Subject>
+            <saml:AuthnStatement AuthnInstant="2025-01-01T00:00:00Z" SessionIndex="_s1"/>
+            <saml:AttributeStatement>
+                <saml:Attribute Name="Department"><saml:AttributeValue>Mule Mongery</saml:AttributeValue></saml:Attribute>
+                <saml:Attribute Name="Email"><saml:AttributeValue>mule@example.com</saml:AttributeValue></saml:Attribute>
+            </saml:AttributeStatement>
+        </saml:Assertion>""";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SamlTestResponses() {
+    }
+
+    /**
+     * @param assertion The Assertion or EncryptedAssertion element.
+     * @return The Response XML with Issuer https://idp.example.com.
+     */
+    public static byte[] response(String assertion) {
+        return """
+            <samlp:Response xmlns:samlp="urn:oasis:names:tc:SAML:2.0:protocol" xmlns:saml="urn:oasis:names:tc:SAML:2.0:assertion" ID="_r1" Version="2.0">
+                <saml:Issuer>https://idp.example.com</saml:Issuer>
+                %s
+            </samlp:Response>""".formatted(assertion).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String base64(byte[] response) {
+        return Base64.getEncoder().encodeToString(response);
+    }
+
+    public static EncryptedAssertion encrypted() {
+        return new EncryptedAssertion();
+    }
+
+    public static final class EncryptedAssertion {
+        private String contentAlgorithm = AES256_GCM;
+        private String keyTransport = RSA_OAEP_MGF1P;
+        private Integer contentKeyLength;
+        private boolean siblingKey;
+        private final List<PublicKey> recipients = new ArrayList<>();
+
+        public EncryptedAssertion contentAlgorithm(String contentAlgorithm) {
+            this.contentAlgorithm = contentAlgorithm;
+            return this;
+        }
+
+        public EncryptedAssertion keyTransport(String keyTransport) {
+            this.keyTransport = keyTransport;
+            return this;
+        }
+
+        /**
+         * Use a content key of this many bytes instead of the one the algorithm declares.
+         */
+        public EncryptedAssertion contentKeyLength(int contentKeyLength) {
+            this.contentKeyLength = contentKeyLength;
+            return this;
+        }
+
+        /**
+         * Place the EncryptedKeys next to EncryptedData instead of inside its KeyInfo.
+         */
+        public EncryptedAssertion siblingKey() {
+            this.siblingKey = true;
+            return this;
+        }
+
+        /**
+         * Add an EncryptedKey for this recipient; keys are emitted in the order added.
+         */
+        public EncryptedAssertion recipient(PublicKey recipient) {
+            recipients.add(recipient);
+            return this;
+        }
+
+        public String build() throws Exception {
+            boolean gcm = contentAlgorithm.endsWith("-gcm");
+            int declaredLength = Integer.parseInt(contentAlgorithm.replaceAll(".*aes(\\d+)-.*", "$1")) / 8;
+            byte[] contentKey = new byte[contentKeyLength != null ? contentKeyLength : declaredLength];
+            RANDOM.nextBytes(contentKey);
+            SecretKeySpec key = new SecretKeySpec(contentKey, "AES");
+
+            byte[] plaintext = ASSERTION.getBytes(StandardCharsets.UTF_8);
+            byte[] iv;
+            byte[] ciphertext;
+            if (gcm) {
+                iv = new byte[12];
+                RANDOM.nextBytes(iv);
+                Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+                aes.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+                ciphertext = aes.doFinal(plaintext);
+            } else {
+                iv = new byte[16];
+                RANDOM.nextBytes(iv);
+                // ISO 10126 padding: random filler, last byte is the pad length
+                int padding = 16 - plaintext.length % 16;
+                byte[] padded = Arrays.copyOf(plaintext, plaintext.length + padding);
+                byte[] filler = new byte[padding - 1];
+                RANDOM.nextBytes(filler);
+                System.arraycopy(filler, 0, padded, plaintext.length, filler.length);
+                padded[padded.length - 1] = (byte) padding;
+                Cipher aes = Cipher.getInstance("AES/CBC/NoPadding");
+                aes.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+                ciphertext = aes.doFinal(padded);
+            }
+            byte[] cipherValue = Arrays.copyOf(iv, iv.length + ciphertext.length);
+            System.arraycopy(ciphertext, 0, cipherValue, iv.length, ciphertext.length);
+
+            StringBuilder keys = new StringBuilder();
+            for (PublicKey recipient : recipients) {
+                keys.append(encryptedKey(recipient, contentKey));
+            }
+            String encryptedData = """
+                <xenc:EncryptedData xmlns:xenc="http://www.w3.org/2001/04/xmlenc#" Type="http://www.w3.org/2001/04/xmlenc#Element">
+                    <xenc:EncryptionMethod Algorithm="%s"/>
+                    %s
+                    <xenc:CipherData><xenc:CipherValue>%s</xenc:CipherValue></xenc:CipherData>
+                </xenc:EncryptedData>""".formatted(contentAlgorithm,
+                    siblingKey ? "" : "<ds:KeyInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" + keys + "</ds:KeyInfo>",
+                    Base64.getMimeEncoder().encodeToString(cipherValue));
+            return "<saml:EncryptedAssertion>" + encryptedData + (siblingKey ? keys : "") + "</saml:EncryptedAssertion>";
+        }
+
+        private String encryptedKey(PublicKey recipient, byte[] contentKey) throws Exception {
+            String method;
+            OAEPParameterSpec oaep;
+            if (RSA_OAEP_SHA256.equals(keyTransport)) {
+                method = """
+                    <xenc:EncryptionMethod Algorithm="%s">
+                        <ds:DigestMethod xmlns:ds="http://www.w3.org/2000/09/xmldsig#" Algorithm="http://www.w3.org/2001/04/xmlenc#sha256"/>
+                        <xenc11:MGF xmlns:xenc11="http://www.w3.org/2009/xmlenc11#" Algorithm="http://www.w3.org/2009/xmlenc11#mgf1sha256"/>
+                    </xenc:EncryptionMethod>""".formatted(keyTransport);
+                oaep = new OAEPParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT);
+            } else {
+                method = """
+                    <xenc:EncryptionMethod Algorithm="%s">
+                        <ds:DigestMethod xmlns:ds="http://www.w3.org/2000/09/xmldsig#" Algorithm="http://www.w3.org/2000/09/xmldsig#sha1"/>
+                    </xenc:EncryptionMethod>""".formatted(keyTransport);
+                oaep = new OAEPParameterSpec("SHA-1", "MGF1", MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT);
+            }
+            Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            rsa.init(Cipher.ENCRYPT_MODE, recipient, oaep);
+            return """
+                <xenc:EncryptedKey xmlns:xenc="http://www.w3.org/2001/04/xmlenc#">
+                    %s
+                    <xenc:CipherData><xenc:CipherValue>%s</xenc:CipherValue></xenc:CipherData>
+                </xenc:EncryptedKey>""".formatted(method, Base64.getMimeEncoder().encodeToString(rsa.doFinal(contentKey)));
+        }
+    }
+}